@@ -1,6 +1,7 @@
 package bank;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,38 +10,93 @@ public abstract class Account implements Serializable {
     protected double balance;
     protected Customer owner;
     protected List<Transaction> transactions;
+    protected TransactionTimeIndex timeIndex;
+    protected InterestPolicy interestPolicy;
+    // Position in the bank's account list, used as this account's interest ledger slot
+    int ledgerSlot = -1;
 
-    public Account(String accountNumber, Customer owner) {
+    public Account(String accountNumber, Customer owner, InterestPolicy interestPolicy) {
         this.accountNumber = accountNumber;
         this.owner = owner;
         this.balance = 0.0;
         this.transactions = new ArrayList<>();
+        this.timeIndex = new TransactionTimeIndex();
+        this.interestPolicy = interestPolicy;
     }
 
     public synchronized boolean deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            transactions.add(new Transaction("Deposit", amount, balance));
-            return true;
-        }
-        return false;
+        return tryDeposit(amount).isSuccess();
     }
 
     public synchronized boolean withdraw(double amount) throws InsufficientFundsException {
-        if (amount > balance) {
-            throw new InsufficientFundsException("Insufficient funds for withdrawal");
+        OpResult result = tryWithdraw(amount);
+        if (result == OpResult.INSUFFICIENT_FUNDS) {
+            throw new InsufficientFundsException(result.getMessage());
+        }
+        return result.isSuccess();
+    }
+
+    public synchronized OpResult tryDeposit(double amount) {
+        if (!(amount > 0)) {
+            return OpResult.INVALID_AMOUNT;
         }
+        balance += amount;
+        addTransaction(new Transaction("Deposit", amount, balance));
+        return OpResult.SUCCESS;
+    }
+
+    public synchronized OpResult tryWithdraw(double amount) {
+        if (!(amount > 0)) {
+            return OpResult.INVALID_AMOUNT;
+        }
+        if (amount > availableFunds()) {
+            return OpResult.INSUFFICIENT_FUNDS;
+        }
+        balance -= amount;
+        addTransaction(new Transaction("Withdrawal", -amount, balance));
+        return OpResult.SUCCESS;
+    }
+
+    // Most a withdrawal may take out of the account
+    protected double availableFunds() {
+        return balance;
+    }
+
+    // Interest is posted only by Bank (accrueInterestThrough / postAccruedInterest),
+    // which also journals the transaction and saves the new balance
+    synchronized boolean postInterest(double amount, LocalDateTime timestamp) {
         if (amount > 0) {
-            balance -= amount;
-            transactions.add(new Transaction("Withdrawal", -amount, balance));
+            balance += amount;
+            addTransaction(new Transaction("Interest", amount, balance, timestamp));
             return true;
         }
         return false;
     }
 
-    public abstract void calculateInterest();
+    public double dailyInterest() {
+        return interestPolicy.dailyInterest(balance);
+    }
+
+    public InterestPolicy getInterestPolicy() {
+        return interestPolicy;
+    }
+
+    // Use Bank.setInterestPolicy so the change is saved with the account
+    synchronized void setInterestPolicy(InterestPolicy interestPolicy) {
+        this.interestPolicy = interestPolicy;
+    }
 
-    public double getBalance() {
+    // Appends to the history and keeps the time index in step
+    synchronized void addTransaction(Transaction transaction) {
+        transactions.add(transaction);
+        timeIndex.add(transaction.getEpochMillis(), transactions.size() - 1);
+    }
+
+    synchronized Transaction getLastTransaction() {
+        return transactions.isEmpty() ? null : transactions.get(transactions.size() - 1);
+    }
+
+    public synchronized double getBalance() {
         return balance;
     }
 
@@ -48,10 +104,20 @@ public abstract class Account implements Serializable {
         return accountNumber;
     }
 
-    public List<Transaction> getTransactions() {
+    public synchronized List<Transaction> getTransactions() {
         return new ArrayList<>(transactions);
     }
 
+    // Transactions with from <= timestamp < to, in time order
+    public synchronized List<Transaction> getTransactions(LocalDateTime from, LocalDateTime to) {
+        int[] positions = timeIndex.range(Transaction.toEpochMillis(from), Transaction.toEpochMillis(to));
+        List<Transaction> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(transactions.get(position));
+        }
+        return result;
+    }
+
     public Customer getOwner() {
         return owner;
     }
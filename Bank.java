@@ -2,26 +2,67 @@ package bank;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 public class Bank {
     private List<Account> accounts;
+    private Map<String, Account> accountIndex;
+    private TransactionJournalIndex journalIndex;
+    private TransactionLog transactionLog;
+    private InterestAccrualLedger interestLedger;
     private ScheduledExecutorService scheduler;
+    private File dataDirectory;
+    private File transactionsFile;
+    private File accountsFile;
+    private File customersFile;
+    private long lastAccountNumber;
+    private final AtomicLong statementSequence = new AtomicLong();
+    // Text journal written by earlier versions; still read at startup, no longer appended to
     private static final String TRANSACTIONS_FILE = "transactions_data.txt";
+    private static final String TRANSACTIONS_DIR = "transactions";
     private static final String ACCOUNTS_FILE = "accounts_data.txt";
     private static final String CUSTOMERS_FILE = "customers_data.txt";
     private static final DateTimeFormatter DATE_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public Bank() {
+        this(new File("."));
+    }
+
+    // Keeps all data files (and generated statements) under the given directory
+    public Bank(File dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        transactionsFile = new File(dataDirectory, TRANSACTIONS_FILE);
+        accountsFile = new File(dataDirectory, ACCOUNTS_FILE);
+        customersFile = new File(dataDirectory, CUSTOMERS_FILE);
         accounts = new ArrayList<>();
+        accountIndex = new ConcurrentHashMap<>();
+        journalIndex = new TransactionJournalIndex();
+        interestLedger = new InterestAccrualLedger();
+        try {
+            transactionLog = new TransactionLog(new File(dataDirectory, TRANSACTIONS_DIR));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction log", e);
+        }
         scheduler = Executors.newScheduledThreadPool(1);
         loadAllData();
+        // Accrue the days that passed while the bank was not running
+        accrueInterestThrough(LocalDate.now().minusDays(1));
         startInterestCalculation();
     }
 
@@ -33,7 +74,7 @@ public class Bank {
 
     // Save customer data
     private void saveCustomerData(Customer customer) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(CUSTOMERS_FILE, true))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(customersFile, true))) {
             writer.println("=== CUSTOMER ===");
             writer.println("ID: " + customer.getId());
             writer.println("Name: " + customer.getName());
@@ -47,39 +88,51 @@ public class Bank {
 
     // Save account data
     private void saveAccountData(Account account) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ACCOUNTS_FILE, true))) {
-            writer.println("=== ACCOUNT ===");
-            writer.println("Number: " + account.getAccountNumber());
-            writer.println("Type: " + account.getClass().getSimpleName());
-            writer.println("Balance: " + account.getBalance());
-            writer.println("CustomerID: " + account.getOwner().getId());
-            writer.println("=== END ACCOUNT ===\n");
+        try (PrintWriter writer = new PrintWriter(new FileWriter(accountsFile, true))) {
+            writeAccountRecord(writer, account);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private void writeAccountRecord(PrintWriter writer, Account account) {
+        writer.println("=== ACCOUNT ===");
+        writer.println("Number: " + account.getAccountNumber());
+        writer.println("Type: " + account.getClass().getSimpleName());
+        writer.println("Balance: " + account.getBalance());
+        writer.println("CustomerID: " + account.getOwner().getId());
+        if (account instanceof CurrentAccount) {
+            writer.println("OverdraftLimit: " + ((CurrentAccount) account).getOverdraftLimit());
+        }
+        writer.println("InterestPolicy: " + account.getInterestPolicy());
+        writer.println("AccruedInterest: " + interestLedger.pending(account.ledgerSlot));
+        writer.println("LastAccrual: " + LocalDate.ofEpochDay(interestLedger.lastAccruedDay(account.ledgerSlot)));
+        writer.println("=== END ACCOUNT ===\n");
+    }
+
     // Save transaction data
     private void saveTransactionData(String accountNumber, Transaction transaction) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TRANSACTIONS_FILE, true))) {
-            writer.println("=== TRANSACTION ===");
-            writer.println("AccountNumber: " + accountNumber);
-            writer.println("Timestamp: " + transaction.getTimestamp().format(DATE_FORMATTER));
-            writer.println("Type: " + transaction.getType());
-            writer.println("Amount: " + transaction.getAmount());
-            writer.println("BalanceAfter: " + transaction.getBalanceAfter());
-            writer.println("=== END TRANSACTION ===\n");
+        saveTransactionData(Collections.singletonList(new JournalEntry(accountNumber, transaction)));
+    }
+
+    // Save a batch of transactions with a single flush of the journal
+    private void saveTransactionData(List<JournalEntry> entries) {
+        try {
+            transactionLog.append(entries);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        for (JournalEntry entry : entries) {
+            journalIndex.add(entry.getAccountNumber(), entry.getTransaction());
+        }
     }
 
     // Load customers and accounts
     private void loadCustomersAndAccounts() {
-        List<Customer> customers = new ArrayList<>();
+        Map<String, Customer> customers = new HashMap<>();
         
         // First load all customers
-        try (BufferedReader reader = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(customersFile))) {
             String line;
             Customer currentCustomer = null;
             while ((line = reader.readLine()) != null) {
@@ -93,7 +146,7 @@ public class Bank {
                     String address = reader.readLine().substring(9);
                     String phone = reader.readLine().substring(7);
                     currentCustomer = new Customer(id, name, address, phone);
-                    customers.add(currentCustomer);
+                    customers.put(id, currentCustomer);
                 }
             }
         } catch (IOException e) {
@@ -101,27 +154,30 @@ public class Bank {
         }
 
         // Then load accounts and link them to customers
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(accountsFile))) {
             String line;
+            Account lastLoaded = null;
             while ((line = reader.readLine()) != null) {
+                if (lastLoaded != null) {
+                    loadAccountField(lastLoaded, line);
+                }
                 if (line.equals("=== ACCOUNT ===")) {
+                    lastLoaded = null;
                     String number = reader.readLine().substring(8);
                     String type = reader.readLine().substring(6);
                     double balance = Double.parseDouble(reader.readLine().substring(9));
                     String customerId = reader.readLine().substring(12);
                     
                     // Find the corresponding customer
-                    Customer owner = customers.stream()
-                        .filter(c -> c.getId().equals(customerId))
-                        .findFirst()
-                        .orElse(null);
+                    Customer owner = customers.get(customerId);
                     
                     if (owner != null) {
                         Account account = type.equals("SavingsAccount") ?
                             new SavingsAccount(number, owner) :
                             new CurrentAccount(number, owner);
                         account.balance = balance;
-                        accounts.add(account);
+                        registerAccount(account);
+                        lastLoaded = account;
                     }
                 }
             }
@@ -130,27 +186,68 @@ public class Bank {
         }
     }
 
-    // Load transactions with fixed lambda issue
+    // Optional fields that follow CustomerID in an account record
+    private void loadAccountField(Account account, String line) {
+        int slot = account.ledgerSlot;
+        try {
+            if (line.startsWith("OverdraftLimit: ") && account instanceof CurrentAccount) {
+                ((CurrentAccount) account).setOverdraftLimit(Double.parseDouble(line.substring(16)));
+            } else if (line.startsWith("InterestPolicy: ")) {
+                account.setInterestPolicy(InterestPolicy.parse(line.substring(16)));
+            } else if (line.startsWith("AccruedInterest: ")) {
+                interestLedger.restore(slot, Double.parseDouble(line.substring(17)),
+                    interestLedger.lastAccruedDay(slot));
+            } else if (line.startsWith("LastAccrual: ")) {
+                interestLedger.restore(slot, interestLedger.pending(slot),
+                    LocalDate.parse(line.substring(13)).toEpochDay());
+            }
+        } catch (RuntimeException e) {
+            // A malformed field keeps its default rather than failing the whole load
+            e.printStackTrace();
+        }
+    }
+
+    // Adds the account to the lookup structures; accrual starts from today
+    private void registerAccount(Account account) {
+        account.ledgerSlot = accounts.size();
+        accounts.add(account);
+        accountIndex.put(account.getAccountNumber(), account);
+        interestLedger.restore(account.ledgerSlot, 0.0, LocalDate.now().minusDays(1).toEpochDay());
+    }
+
+    // Load transactions and build the per-account and journal time indexes
     private void loadTransactions() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
+        loadLegacyTransactions();
+        try {
+            transactionLog.readAll((accountNumber, transaction) -> {
+                Account account = accountIndex.get(accountNumber);
+                if (account != null) {
+                    account.addTransaction(transaction);
+                    journalIndex.add(accountNumber, transaction);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void loadLegacyTransactions() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(transactionsFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (line.equals("=== TRANSACTION ===")) {
-                    // Store the account number in a final variable
-                    final String accountNumber = reader.readLine().substring(14);
-                    LocalDateTime timestamp = LocalDateTime.parse(reader.readLine().substring(11), DATE_FORMATTER);
+                    String accountNumber = reader.readLine().substring(15);
+                    LocalDateTime timestamp = parseTimestamp(reader.readLine().substring(11));
                     String type = reader.readLine().substring(6);
                     double amount = Double.parseDouble(reader.readLine().substring(8));
                     double balanceAfter = Double.parseDouble(reader.readLine().substring(14));
-                    
-                    // Use the final accountNumber variable in the lambda
-                    accounts.stream()
-                        .filter(a -> a.getAccountNumber().equals(accountNumber))
-                        .findFirst()
-                        .ifPresent(account -> {
-                            Transaction transaction = new Transaction(type, amount, balanceAfter, timestamp);
-                            account.transactions.add(transaction);
-                        });
+
+                    Account account = accountIndex.get(accountNumber);
+                    if (account != null) {
+                        Transaction transaction = new Transaction(type, amount, balanceAfter, timestamp);
+                        account.addTransaction(transaction);
+                        journalIndex.add(accountNumber, transaction);
+                    }
                 }
             }
         } catch (IOException e) {
@@ -158,7 +255,30 @@ public class Bank {
         }
     }
 
-    public Account createAccount(String type, Customer customer) {
+    // Parses "yyyy-MM-dd HH:mm:ss" directly; this runs once per record at load
+    static LocalDateTime parseTimestamp(String text) {
+        if (text.length() != 19 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return LocalDateTime.parse(text, DATE_FORMATTER);
+        }
+        return LocalDateTime.of(
+            digits(text, 0, 4), digits(text, 5, 7), digits(text, 8, 10),
+            digits(text, 11, 13), digits(text, 14, 16), digits(text, 17, 19));
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeParseException("Invalid timestamp", text, i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    public synchronized Account createAccount(String type, Customer customer) {
         // Save customer data first
         saveCustomerData(customer);
         
@@ -167,43 +287,98 @@ public class Bank {
         Account account = type.equalsIgnoreCase("savings") ?
             new SavingsAccount(accountNumber, customer) :
             new CurrentAccount(accountNumber, customer);
-        accounts.add(account);
+        registerAccount(account);
         saveAccountData(account);
         
         return account;
     }
 
     public synchronized boolean deposit(String accountNumber, double amount) throws AccountNotFoundException {
-        Account account = findAccount(accountNumber);
-        if (account.deposit(amount)) {
-            // Save the transaction
-            Transaction transaction = account.getTransactions().get(account.getTransactions().size() - 1);
-            saveTransactionData(accountNumber, transaction);
-            // Update account data
-            updateAccountData(account);
-            return true;
+        OpResult result = tryDeposit(accountNumber, amount);
+        if (result == OpResult.ACCOUNT_NOT_FOUND) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
         }
-        return false;
+        return result.isSuccess();
     }
 
     public synchronized boolean withdraw(String accountNumber, double amount) 
             throws AccountNotFoundException, InsufficientFundsException {
+        OpResult result = tryWithdraw(accountNumber, amount);
+        if (result == OpResult.ACCOUNT_NOT_FOUND) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        if (result == OpResult.INSUFFICIENT_FUNDS) {
+            throw new InsufficientFundsException(result.getMessage());
+        }
+        return result.isSuccess();
+    }
+
+    // Same as deposit, but declines are reported as a result code instead of an exception
+    public synchronized OpResult tryDeposit(String accountNumber, double amount) {
+        Account account = lookupAccount(accountNumber);
+        if (account == null) {
+            return OpResult.ACCOUNT_NOT_FOUND;
+        }
+        OpResult result = account.tryDeposit(amount);
+        if (result.isSuccess()) {
+            recordTransaction(account);
+        }
+        return result;
+    }
+
+    // Same as withdraw, but declines are reported as a result code instead of an exception
+    public synchronized OpResult tryWithdraw(String accountNumber, double amount) {
+        Account account = lookupAccount(accountNumber);
+        if (account == null) {
+            return OpResult.ACCOUNT_NOT_FOUND;
+        }
+        OpResult result = account.tryWithdraw(amount);
+        if (result.isSuccess()) {
+            recordTransaction(account);
+        }
+        return result;
+    }
+
+    // Policies must be FlatInterestPolicy or TieredInterestPolicy so they can be saved
+    public synchronized void setInterestPolicy(String accountNumber, InterestPolicy policy)
+            throws AccountNotFoundException {
+        if (!(policy instanceof FlatInterestPolicy) && !(policy instanceof TieredInterestPolicy)) {
+            throw new IllegalArgumentException("Only flat and tiered interest policies can be saved");
+        }
         Account account = findAccount(accountNumber);
-        if (account.withdraw(amount)) {
-            // Save the transaction
-            Transaction transaction = account.getTransactions().get(account.getTransactions().size() - 1);
-            saveTransactionData(accountNumber, transaction);
-            // Update account data
-            updateAccountData(account);
-            return true;
+        account.setInterestPolicy(policy);
+        updateAccountData(account);
+    }
+
+    public synchronized void setOverdraftLimit(String accountNumber, double limit) throws AccountNotFoundException {
+        Account account = findAccount(accountNumber);
+        if (!(account instanceof CurrentAccount)) {
+            throw new IllegalArgumentException("Overdraft is only available on current accounts");
         }
-        return false;
+        ((CurrentAccount) account).setOverdraftLimit(limit);
+        updateAccountData(account);
+    }
+
+    // Save the account's latest transaction and its new balance
+    private void recordTransaction(Account account) {
+        saveTransactionData(account.getAccountNumber(), account.getLastTransaction());
+        updateAccountData(account);
     }
 
     private void updateAccountData(Account account) {
-        // Create temporary list of all accounts except the one being updated
+        updateAccountData(Collections.singletonList(account));
+    }
+
+    // Rewrite the accounts file once for a batch of changed accounts
+    private void updateAccountData(List<Account> changed) {
+        Set<String> changedNumbers = new HashSet<>();
+        for (Account account : changed) {
+            changedNumbers.add(account.getAccountNumber());
+        }
+
+        // Create temporary list of all accounts except the ones being updated
         List<String> updatedAccounts = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(accountsFile))) {
             String line;
             StringBuilder currentAccount = new StringBuilder();
             boolean skip = false;
@@ -219,7 +394,7 @@ public class Bank {
                     }
                     skip = false;
                 } else if (line.startsWith("Number: ")) {
-                    skip = line.substring(8).equals(account.getAccountNumber());
+                    skip = changedNumbers.contains(line.substring(8));
                     currentAccount.append(line).append("\n");
                 } else {
                     currentAccount.append(line).append("\n");
@@ -230,52 +405,169 @@ public class Bank {
         }
 
         // Write updated account data
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ACCOUNTS_FILE))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(accountsFile))) {
             for (String acc : updatedAccounts) {
                 writer.print(acc);
             }
-            writer.println("=== ACCOUNT ===");
-            writer.println("Number: " + account.getAccountNumber());
-            writer.println("Type: " + account.getClass().getSimpleName());
-            writer.println("Balance: " + account.getBalance());
-            writer.println("CustomerID: " + account.getOwner().getId());
-            writer.println("=== END ACCOUNT ===\n");
+            for (Account account : changed) {
+                writeAccountRecord(writer, account);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     public Account findAccount(String accountNumber) throws AccountNotFoundException {
-        return accounts.stream()
-            .filter(a -> a.getAccountNumber().equals(accountNumber))
-            .findFirst()
-            .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
+        Account account = lookupAccount(accountNumber);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        return account;
+    }
+
+    // Returns null when there is no such account
+    public Account lookupAccount(String accountNumber) {
+        return accountNumber == null ? null : accountIndex.get(accountNumber);
     }
 
+    // Runs just after each midnight and accrues the day that has ended
     private void startInterestCalculation() {
+        long untilMidnight = Duration.between(LocalDateTime.now(), LocalDate.now().plusDays(1).atStartOfDay()).toMillis();
         scheduler.scheduleAtFixedRate(() -> {
-            for (Account account : accounts) {
-                account.calculateInterest();
-                // Save interest transaction and update account data
-                if (!account.getTransactions().isEmpty()) {
-                    Transaction transaction = account.getTransactions().get(account.getTransactions().size() - 1);
-                    saveTransactionData(account.getAccountNumber(), transaction);
-                    updateAccountData(account);
+            try {
+                accrueInterestThrough(LocalDate.now().minusDays(1));
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the missed days are caught up on the next run
+                e.printStackTrace();
+            }
+        }, untilMidnight, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    // Accrue interest for every day up to and including the given day that has not been
+    // accrued yet. Accruing the last day of a month posts that month's interest, dated
+    // at the end of that day so it falls inside the month.
+    public synchronized void accrueInterestThrough(LocalDate day) {
+        long through = day.toEpochDay();
+        List<JournalEntry> posted = new ArrayList<>();
+        List<Account> changed = new ArrayList<>();
+        for (Account account : accounts) {
+            int slot = account.ledgerSlot;
+            long last = interestLedger.lastAccruedDay(slot);
+            if (last >= through) {
+                continue;
+            }
+            if (account.getBalance() <= 0 && interestLedger.pending(slot) == 0) {
+                // Nothing to earn or post; the new date is saved with the next balance change
+                interestLedger.accrue(slot, through, 0.0);
+                continue;
+            }
+            if (isLastDayOfMonth(last)) {
+                // Left over from a record saved before its month was posted
+                postPendingInterest(account, endOfDay(last), posted);
+            }
+            for (long d = last + 1; d <= through; d++) {
+                interestLedger.accrue(slot, d, account.dailyInterest());
+                if (isLastDayOfMonth(d)) {
+                    postPendingInterest(account, endOfDay(d), posted);
                 }
             }
-        }, 1, 1, TimeUnit.DAYS);
+            changed.add(account);
+        }
+        saveInterestRun(posted, changed);
+    }
+
+    // Post all accrued interest now, e.g. to settle a partial month
+    public synchronized void postAccruedInterest() {
+        List<JournalEntry> posted = new ArrayList<>();
+        List<Account> changed = new ArrayList<>();
+        for (Account account : accounts) {
+            if (postPendingInterest(account, LocalDateTime.now(), posted)) {
+                changed.add(account);
+            }
+        }
+        saveInterestRun(posted, changed);
+    }
+
+    private boolean postPendingInterest(Account account, LocalDateTime timestamp, List<JournalEntry> posted) {
+        double amount = interestLedger.drain(account.ledgerSlot);
+        if (account.postInterest(amount, timestamp)) {
+            posted.add(new JournalEntry(account.getAccountNumber(), account.getLastTransaction()));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isLastDayOfMonth(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay + 1).getDayOfMonth() == 1;
+    }
+
+    private static LocalDateTime endOfDay(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atTime(23, 59, 59);
     }
 
+    // One journal append and one accounts-file rewrite for the whole run
+    private void saveInterestRun(List<JournalEntry> posted, List<Account> changed) {
+        if (!posted.isEmpty()) {
+            saveTransactionData(posted);
+        }
+        if (!changed.isEmpty()) {
+            updateAccountData(changed);
+        }
+    }
+
+    // Reads under the account's lock only, so balance checks don't queue behind the bank
+    public double getBalance(String accountNumber) throws AccountNotFoundException {
+        return findAccount(accountNumber).getBalance();
+    }
+
+    // Interest accrued for the account but not yet posted
+    public synchronized double getAccruedInterest(String accountNumber) throws AccountNotFoundException {
+        return interestLedger.pending(findAccount(accountNumber).ledgerSlot);
+    }
+
+    // Stop the interest scheduler and close the transaction log
+    public synchronized void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            transactionLog.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Time-based like before, but never repeats when accounts are opened within the same millisecond
     private String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis();
+        lastAccountNumber = Math.max(System.currentTimeMillis(), lastAccountNumber + 1);
+        return "ACC" + lastAccountNumber;
     }
 
-    public void generateStatement(String accountNumber) throws AccountNotFoundException {
+    // All transactions across accounts with from <= timestamp < to, in time order
+    public List<JournalEntry> getTransactions(LocalDateTime from, LocalDateTime to) {
+        return journalIndex.range(Transaction.toEpochMillis(from), Transaction.toEpochMillis(to));
+    }
+
+    // Returns the statement file that was written
+    public File generateStatement(String accountNumber) throws AccountNotFoundException {
+        Account account = findAccount(accountNumber);
+        return writeStatement(account, account.getTransactions());
+    }
+
+    // Statement limited to transactions with from <= timestamp < to
+    public File generateStatement(String accountNumber, LocalDateTime from, LocalDateTime to)
+            throws AccountNotFoundException {
         Account account = findAccount(accountNumber);
+        return writeStatement(account, account.getTransactions(from, to));
+    }
+
+    private File writeStatement(Account account, List<Transaction> history) {
+        String accountNumber = account.getAccountNumber();
+        // The sequence number keeps concurrent statements for one account in separate files
         String filename = "statement_" + accountNumber + "_" + 
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".txt";
+                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS")) + "_" +
+                        statementSequence.incrementAndGet() + ".txt";
+        File file = new File(dataDirectory, filename);
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
             writer.println("=== Account Statement ===");
             writer.println("Generated: " + LocalDateTime.now().format(DATE_FORMATTER));
             writer.println("Account Number: " + accountNumber);
@@ -286,7 +578,7 @@ public class Bank {
             writer.println("\nTransaction History:");
             writer.println("----------------------------------------");
             
-            for (Transaction t : account.getTransactions()) {
+            for (Transaction t : history) {
                 writer.printf("%s | %s | $%.2f | Balance: $%.2f%n",
                     t.getTimestamp().format(DATE_FORMATTER),
                     t.getType(),
@@ -296,5 +588,6 @@ public class Bank {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return file;
     }
 }
\ No newline at end of file
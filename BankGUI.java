@@ -3,6 +3,7 @@ package bank;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
+import java.io.File;
 
 public class BankGUI extends JFrame {
     private Bank bank;
@@ -172,9 +173,11 @@ public class BankGUI extends JFrame {
 
     private void deposit() {
         try {
-            Account account = bank.findAccount(accountNumberField.getText());
+            String accountNumber = accountNumberField.getText();
             double amount = Double.parseDouble(amountField.getText());
-            if (account.deposit(amount)) {
+            OpResult result = bank.tryDeposit(accountNumber, amount);
+            if (result.isSuccess()) {
+                Account account = bank.findAccount(accountNumber);
                 outputArea.setText(String.format(
                     "Deposit Successful\n" +
                     "Amount: $%.2f\n" +
@@ -190,7 +193,7 @@ public class BankGUI extends JFrame {
                 );
             } else {
                 JOptionPane.showMessageDialog(this, 
-                    "Invalid deposit amount",
+                    result.getMessage(),
                     "Error",
                     JOptionPane.ERROR_MESSAGE
                 );
@@ -206,9 +209,11 @@ public class BankGUI extends JFrame {
 
     private void withdraw() {
         try {
-            Account account = bank.findAccount(accountNumberField.getText());
+            String accountNumber = accountNumberField.getText();
             double amount = Double.parseDouble(amountField.getText());
-            if (account.withdraw(amount)) {
+            OpResult result = bank.tryWithdraw(accountNumber, amount);
+            if (result.isSuccess()) {
+                Account account = bank.findAccount(accountNumber);
                 outputArea.setText(String.format(
                     "Withdrawal Successful\n" +
                     "Amount: $%.2f\n" +
@@ -224,7 +229,7 @@ public class BankGUI extends JFrame {
                 );
             } else {
                 JOptionPane.showMessageDialog(this, 
-                    "Insufficient funds or invalid withdrawal amount",
+                    result.getMessage(),
                     "Error",
                     JOptionPane.ERROR_MESSAGE
                 );
@@ -265,10 +270,10 @@ public class BankGUI extends JFrame {
     private void generateStatement() {
         try {
             String accountNumber = accountNumberField.getText();
-            bank.generateStatement(accountNumber);
+            File statement = bank.generateStatement(accountNumber);
             outputArea.setText(
                 "Statement generated successfully.\n" +
-                "File saved as: statement_" + accountNumber + "_[timestamp].txt"
+                "File saved as: " + statement.getName()
             );
             JOptionPane.showMessageDialog(this, 
                 "Statement generated successfully!",
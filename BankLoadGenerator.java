@@ -0,0 +1,479 @@
+package bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Deterministic load generator and soak test for Bank.
+//
+// Opens N accounts in a scratch data directory, then drives a seeded,
+// Zipf-skewed mix of deposits, withdrawals, balance checks, statements and
+// interest runs from M worker threads. Each worker's operation sequence depends
+// only on the seed and its index; the interleaving between workers does not.
+// Reports throughput and latency percentiles per operation, then checks that
+// every account's transaction history sums to its balance, both in memory and
+// after reloading the data directory.
+//
+// Usage: java bank.BankLoadGenerator [--accounts=200] [--threads=8] [--ops=20000 | --duration=60]
+//          [--seed=42] [--zipf=1.1] [--mix=40,35,20,2,3] [--virtual] [--dir=path]
+// --ops is the total across all workers; --duration (seconds) runs every worker until the
+// deadline instead; --mix is deposit,withdraw,balance,statement,interest.
+public class BankLoadGenerator {
+    private static final String[] OPERATIONS = {"deposit", "withdraw", "balance", "statement", "interest"};
+    private static final int DEPOSIT = 0;
+    private static final int WITHDRAW = 1;
+    private static final int BALANCE = 2;
+    private static final int STATEMENT = 3;
+    private static final int INTEREST = 4;
+
+    private final int accountCount;
+    private final int threads;
+    private final int totalOps;
+    private final long durationNanos;
+    private final long seed;
+    private final double zipfExponent;
+    private final int[] mix;
+    private final boolean virtualThreads;
+    private final File dataDirectory;
+
+    private Bank bank;
+    private String[] accountNumbers;
+    private double[] zipfCdf;
+    // Each interest run accrues through the next simulated day, starting today
+    private final LocalDate firstInterestDay = LocalDate.now();
+    private final AtomicInteger interestDay = new AtomicInteger();
+    private long elapsedNanos;
+
+    // A positive durationSeconds overrides totalOps
+    public BankLoadGenerator(int accountCount, int threads, int totalOps, long durationSeconds, long seed,
+                             double zipfExponent, int[] mix, boolean virtualThreads, File dataDirectory) {
+        if (accountCount < 1 || threads < 1 || totalOps < 0 || durationSeconds < 0) {
+            throw new IllegalArgumentException("accounts and threads must be positive, ops and duration non-negative");
+        }
+        if (mix.length != OPERATIONS.length || Arrays.stream(mix).anyMatch(w -> w < 0)
+                || Arrays.stream(mix).sum() == 0) {
+            throw new IllegalArgumentException("mix needs " + OPERATIONS.length + " non-negative weights");
+        }
+        this.accountCount = accountCount;
+        this.threads = threads;
+        this.totalOps = totalOps;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.seed = seed;
+        this.zipfExponent = zipfExponent;
+        this.mix = mix.clone();
+        this.virtualThreads = virtualThreads;
+        this.dataDirectory = dataDirectory;
+    }
+
+    // Runs the whole scenario; returns true when every invariant holds
+    public boolean run() throws Exception {
+        bank = new Bank(dataDirectory);
+        try {
+            openAccounts();
+            zipfCdf = buildZipfCdf(accountCount, zipfExponent);
+
+            String length = durationNanos > 0
+                ? TimeUnit.NANOSECONDS.toSeconds(durationNanos) + " s" : totalOps + " ops";
+            System.out.printf("Running %s on %d accounts from %d %s threads (seed %d, zipf %.2f)%n",
+                length, accountCount, threads, virtualThreads ? "virtual" : "platform", seed, zipfExponent);
+            Worker[] workers = runWorkers();
+            report(workers);
+            return checkInvariants(workers);
+        } finally {
+            bank.shutdown();
+        }
+    }
+
+    private void openAccounts() {
+        accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            Customer customer = new Customer("LOAD" + i, "Load Customer " + i, "Load Street " + i, "555-" + i);
+            Account account = bank.createAccount(i % 2 == 0 ? "savings" : "current", customer);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+    }
+
+    private Worker[] runWorkers() throws Exception {
+        Worker[] workers = new Worker[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            int ops = totalOps / threads + (i < totalOps % threads ? 1 : 0);
+            workers[i] = new Worker(ops, new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (i + 1)), start);
+        }
+
+        ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Worker worker : workers) {
+                futures.add(executor.submit(worker));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - began;
+        } finally {
+            executor.shutdown();
+        }
+        return workers;
+    }
+
+    // Virtual threads need Java 21; looked up reflectively so the rest builds on older JDKs
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later", e);
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final int ops;
+        private final SplittableRandom random;
+        private final CountDownLatch start;
+        // Fixed size whatever the run length; merged across workers for the report
+        private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        private final long[] succeeded = new long[OPERATIONS.length];
+        private final long[] declined = new long[OPERATIONS.length];
+
+        Worker(int ops, SplittableRandom random, CountDownLatch start) {
+            this.ops = ops;
+            this.random = random;
+            this.start = start;
+            for (int kind = 0; kind < OPERATIONS.length; kind++) {
+                latencies[kind] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            int mixTotal = Arrays.stream(mix).sum();
+            long deadline = System.nanoTime() + durationNanos;
+            for (long i = 0; durationNanos > 0 ? System.nanoTime() - deadline < 0 : i < ops; i++) {
+                int kind = pickOperation(random.nextInt(mixTotal));
+                String accountNumber = accountNumbers[pickAccount(random.nextDouble())];
+                // Whole cents between 0.01 and 500.00
+                double amount = (1 + random.nextInt(50_000)) / 100.0;
+
+                long began = System.nanoTime();
+                boolean ok = execute(kind, accountNumber, amount);
+                latencies[kind].record(System.nanoTime() - began);
+                if (ok) {
+                    succeeded[kind]++;
+                } else {
+                    declined[kind]++;
+                }
+            }
+        }
+
+        private int pickOperation(int roll) {
+            for (int kind = 0; kind < mix.length; kind++) {
+                roll -= mix[kind];
+                if (roll < 0) {
+                    return kind;
+                }
+            }
+            return mix.length - 1;
+        }
+    }
+
+    private boolean execute(int kind, String accountNumber, double amount) {
+        switch (kind) {
+            case DEPOSIT:
+                return bank.tryDeposit(accountNumber, amount).isSuccess();
+            case WITHDRAW:
+                return bank.tryWithdraw(accountNumber, amount).isSuccess();
+            case BALANCE:
+                try {
+                    bank.getBalance(accountNumber);
+                    return true;
+                } catch (AccountNotFoundException e) {
+                    return false;
+                }
+            case STATEMENT:
+                try {
+                    bank.generateStatement(accountNumber);
+                    return true;
+                } catch (AccountNotFoundException e) {
+                    return false;
+                }
+            case INTEREST:
+            default:
+                bank.accrueInterestThrough(firstInterestDay.plusDays(interestDay.getAndIncrement()));
+                return true;
+        }
+    }
+
+    private int pickAccount(double uniform) {
+        int index = Arrays.binarySearch(zipfCdf, uniform);
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, zipfCdf.length - 1);
+    }
+
+    // Cumulative distribution where account k is chosen with weight 1 / (k + 1)^exponent
+    private static double[] buildZipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= total;
+        }
+        return cdf;
+    }
+
+    private void report(Worker[] workers) {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram[] byKind = new LatencyHistogram[OPERATIONS.length];
+        for (int kind = 0; kind < OPERATIONS.length; kind++) {
+            byKind[kind] = new LatencyHistogram();
+            for (Worker worker : workers) {
+                byKind[kind].add(worker.latencies[kind]);
+            }
+            all.add(byKind[kind]);
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Elapsed: %.3f s, ops: %d, throughput: %.0f ops/s%n",
+            seconds, all.count(), all.count() / Math.max(seconds, 1e-9));
+        System.out.printf("%-10s %8s %8s %10s %10s %10s %10s%n",
+            "operation", "ok", "declined", "p50 us", "p90 us", "p99 us", "max us");
+        for (int kind = 0; kind < OPERATIONS.length; kind++) {
+            if (byKind[kind].count() == 0) {
+                continue;
+            }
+            long ok = 0;
+            long declined = 0;
+            for (Worker worker : workers) {
+                ok += worker.succeeded[kind];
+                declined += worker.declined[kind];
+            }
+            printLatencies(OPERATIONS[kind], ok, declined, byKind[kind]);
+        }
+        if (all.count() > 0) {
+            printLatencies("all", all.count(), 0, all);
+        }
+    }
+
+    private static void printLatencies(String name, long ok, long declined, LatencyHistogram latencies) {
+        System.out.printf("%-10s %8d %8d %10.1f %10.1f %10.1f %10.1f%n", name, ok, declined,
+            latencies.percentile(0.50) / 1e3, latencies.percentile(0.90) / 1e3,
+            latencies.percentile(0.99) / 1e3, latencies.max() / 1e3);
+    }
+
+    // Log-linear latency histogram in nanoseconds: exact below 64 ns, then 32 buckets per
+    // power of two (within about 3%). Values past 2^36 ns (about 69 s) share the top bucket;
+    // the exact maximum is kept separately.
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final long HIGHEST = (1L << 36) - 1;
+
+        private final long[] counts = new long[indexOf(HIGHEST) + 1];
+        private long count;
+        private long max;
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts[indexOf(Math.min(value, HIGHEST))]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        long count() {
+            return count;
+        }
+
+        long max() {
+            return max;
+        }
+
+        // Upper bound of the bucket holding the given rank, capped at the recorded maximum
+        long percentile(double fraction) {
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestIn(i), max);
+                }
+            }
+            return max;
+        }
+
+        private static int indexOf(long value) {
+            int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+            return shift * SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        private static long highestIn(int index) {
+            int shift = Math.max(0, index / SUB_BUCKETS - 1);
+            long subBucket = index - shift * SUB_BUCKETS;
+            return ((subBucket + 1) << shift) - 1;
+        }
+    }
+
+    private boolean checkInvariants(Worker[] workers) {
+        boolean ok = true;
+
+        // Every successful deposit and withdrawal must appear exactly once in the history
+        long deposits = 0;
+        long withdrawals = 0;
+        for (Worker worker : workers) {
+            deposits += worker.succeeded[DEPOSIT];
+            withdrawals += worker.succeeded[WITHDRAW];
+        }
+        Map<String, Long> typeCounts = new HashMap<>();
+        for (String accountNumber : accountNumbers) {
+            for (Transaction t : bank.lookupAccount(accountNumber).getTransactions()) {
+                typeCounts.merge(t.getType(), 1L, Long::sum);
+            }
+        }
+        ok &= check("deposit count", deposits, typeCounts.getOrDefault("Deposit", 0L));
+        ok &= check("withdrawal count", withdrawals, typeCounts.getOrDefault("Withdrawal", 0L));
+
+        // Every statement must land in its own file; a shared file means concurrent writers clobbered it
+        long statements = 0;
+        for (Worker worker : workers) {
+            statements += worker.succeeded[STATEMENT];
+        }
+        String[] statementFiles = dataDirectory.list((dir, name) -> name.startsWith("statement_"));
+        ok &= check("statement files", statements, statementFiles == null ? 0 : statementFiles.length);
+
+        // Sum of each account's transactions equals its balance, in memory and after a reload
+        double[] balances = new double[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            balances[i] = bank.lookupAccount(accountNumbers[i]).getBalance();
+        }
+        ok &= checkLedger("in-memory ledger", bank, balances);
+
+        bank.shutdown();
+        Bank reloaded = new Bank(dataDirectory);
+        try {
+            ok &= checkLedger("reloaded ledger", reloaded, balances);
+        } finally {
+            reloaded.shutdown();
+        }
+
+        System.out.println(ok ? "All invariants hold" : "INVARIANT VIOLATIONS FOUND");
+        return ok;
+    }
+
+    private boolean checkLedger(String label, Bank source, double[] expectedBalances) {
+        int mismatched = 0;
+        double balanceTotal = 0;
+        double transactionTotal = 0;
+        for (int i = 0; i < accountCount; i++) {
+            Account account = source.lookupAccount(accountNumbers[i]);
+            if (account == null) {
+                mismatched++;
+                continue;
+            }
+            double sum = 0;
+            for (Transaction t : account.getTransactions()) {
+                sum += t.getAmount();
+            }
+            balanceTotal += account.getBalance();
+            transactionTotal += sum;
+            if (!closeEnough(sum, account.getBalance()) || !closeEnough(account.getBalance(), expectedBalances[i])) {
+                mismatched++;
+            }
+        }
+        boolean ok = mismatched == 0 && closeEnough(balanceTotal, transactionTotal);
+        System.out.printf("%s: balances %.2f, transactions %.2f, mismatched accounts %d -> %s%n",
+            label, balanceTotal, transactionTotal, mismatched, ok ? "OK" : "FAIL");
+        return ok;
+    }
+
+    private static boolean check(String label, long expected, long actual) {
+        boolean ok = expected == actual;
+        System.out.printf("%s: expected %d, found %d -> %s%n", label, expected, actual, ok ? "OK" : "FAIL");
+        return ok;
+    }
+
+    // Summing doubles in a different order can differ in the last few bits, far below
+    // a millionth of a dollar; anything larger is a lost or duplicated transaction
+    private static boolean closeEnough(double a, double b) {
+        return Math.abs(a - b) < 1e-6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                System.err.println("Unrecognised argument: " + arg);
+                System.exit(2);
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+
+        File dir;
+        if (options.containsKey("dir")) {
+            dir = new File(options.get("dir"));
+            String[] existing = dir.list();
+            if (existing != null && existing.length > 0) {
+                System.err.println("Data directory must be empty: " + dir);
+                System.exit(2);
+            }
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create data directory: " + dir);
+            }
+        } else {
+            dir = Files.createTempDirectory("bank-load").toFile();
+        }
+        System.out.println("Data directory: " + dir.getAbsolutePath());
+
+        int[] mix = Arrays.stream(options.getOrDefault("mix", "40,35,20,2,3").split(","))
+            .mapToInt(w -> Integer.parseInt(w.trim()))
+            .toArray();
+        BankLoadGenerator generator = new BankLoadGenerator(
+            Integer.parseInt(options.getOrDefault("accounts", "200")),
+            Integer.parseInt(options.getOrDefault("threads", "8")),
+            Integer.parseInt(options.getOrDefault("ops", "20000")),
+            Long.parseLong(options.getOrDefault("duration", "0")),
+            Long.parseLong(options.getOrDefault("seed", "42")),
+            Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+            mix,
+            options.containsKey("virtual"),
+            dir);
+        try {
+            System.exit(generator.run() ? 0 : 1);
+        } catch (UnsupportedOperationException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
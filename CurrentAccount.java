@@ -1,16 +1,34 @@
 package bank;
 
 public class CurrentAccount extends Account {
-    private static final double INTEREST_RATE = 0.01;
+    public static final InterestPolicy DEFAULT_INTEREST_POLICY = new FlatInterestPolicy(0.01);
+
+    private double overdraftLimit;
 
     public CurrentAccount(String accountNumber, Customer owner) {
-        super(accountNumber, owner);
+        this(accountNumber, owner, 0.0);
+    }
+
+    public CurrentAccount(String accountNumber, Customer owner, double overdraftLimit) {
+        super(accountNumber, owner, DEFAULT_INTEREST_POLICY);
+        setOverdraftLimit(overdraftLimit);
     }
 
+    // Withdrawals may take the balance down to -overdraftLimit
     @Override
-    public void calculateInterest() {
-        double interest = balance * (INTEREST_RATE / 12);
-        deposit(interest);
+    protected double availableFunds() {
+        return balance + overdraftLimit;
+    }
+
+    public double getOverdraftLimit() {
+        return overdraftLimit;
+    }
+
+    public synchronized void setOverdraftLimit(double overdraftLimit) {
+        if (!(overdraftLimit >= 0)) {
+            throw new IllegalArgumentException("Overdraft limit cannot be negative");
+        }
+        this.overdraftLimit = overdraftLimit;
     }
 }
 
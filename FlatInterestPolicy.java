@@ -0,0 +1,35 @@
+package bank;
+
+import java.io.Serializable;
+
+// Single rate for every balance
+public final class FlatInterestPolicy implements InterestPolicy, Serializable {
+    static final String NAME = "Flat";
+
+    private final double annualRate;
+    private final double dailyRate;
+
+    public FlatInterestPolicy(double annualRate) {
+        if (annualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        this.annualRate = annualRate;
+        this.dailyRate = annualRate / 365;
+    }
+
+    @Override
+    public double annualRate(double balance) {
+        return annualRate;
+    }
+
+    @Override
+    public double dailyInterest(double balance) {
+        return balance > 0 ? balance * dailyRate : 0.0;
+    }
+
+    // Saved form, read back by InterestPolicy.parse
+    @Override
+    public String toString() {
+        return NAME + " " + annualRate;
+    }
+}
@@ -0,0 +1,50 @@
+package bank;
+
+import java.util.Arrays;
+
+// Interest accrued but not yet posted, plus the last day accrued, one slot per account.
+// Slots follow the bank's account list, which only ever grows.
+class InterestAccrualLedger {
+    private double[] accrued = new double[64];
+    private long[] lastAccruedDay = new long[64];
+
+    // Sets a slot's state, e.g. from a saved account record
+    void restore(int slot, double amount, long lastDay) {
+        ensureCapacity(slot);
+        accrued[slot] = amount;
+        lastAccruedDay[slot] = lastDay;
+    }
+
+    void accrue(int slot, long day, double amount) {
+        ensureCapacity(slot);
+        accrued[slot] += amount;
+        lastAccruedDay[slot] = day;
+    }
+
+    // Returns the accrued amount for the slot and resets it
+    double drain(int slot) {
+        if (slot >= accrued.length) {
+            return 0.0;
+        }
+        double amount = accrued[slot];
+        accrued[slot] = 0.0;
+        return amount;
+    }
+
+    double pending(int slot) {
+        return slot < accrued.length ? accrued[slot] : 0.0;
+    }
+
+    // Epoch day of the last day accrued for the slot
+    long lastAccruedDay(int slot) {
+        return lastAccruedDay[slot];
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= accrued.length) {
+            int size = Math.max(slot + 1, accrued.length * 2);
+            accrued = Arrays.copyOf(accrued, size);
+            lastAccruedDay = Arrays.copyOf(lastAccruedDay, size);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package bank;
+
+// Strategy for how an account product earns interest.
+// Implementations precompute their rates so a lookup is arithmetic only.
+//
+// Policies are saved with the account in their toString() form and rebuilt by
+// parse(), so only the built-in FlatInterestPolicy and TieredInterestPolicy can
+// be assigned through Bank.setInterestPolicy; other implementations are rejected.
+public interface InterestPolicy {
+    // Annual rate applied to the given balance
+    double annualRate(double balance);
+
+    // Interest earned by the balance over one day
+    default double dailyInterest(double balance) {
+        return balance > 0 ? balance * annualRate(balance) / 365 : 0.0;
+    }
+
+    // Rebuilds a policy from the toString() form of FlatInterestPolicy or TieredInterestPolicy
+    static InterestPolicy parse(String spec) {
+        if (spec.startsWith(FlatInterestPolicy.NAME + " ")) {
+            return new FlatInterestPolicy(Double.parseDouble(spec.substring(FlatInterestPolicy.NAME.length() + 1)));
+        }
+        if (spec.startsWith(TieredInterestPolicy.NAME + " ")) {
+            String[] bands = spec.substring(TieredInterestPolicy.NAME.length() + 1).split(",");
+            double[] floors = new double[bands.length];
+            double[] rates = new double[bands.length];
+            for (int i = 0; i < bands.length; i++) {
+                int eq = bands[i].indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Malformed interest band: " + bands[i]);
+                }
+                floors[i] = Double.parseDouble(bands[i].substring(0, eq));
+                rates[i] = Double.parseDouble(bands[i].substring(eq + 1));
+            }
+            return new TieredInterestPolicy(floors, rates);
+        }
+        throw new IllegalArgumentException("Unknown interest policy: " + spec);
+    }
+}
@@ -0,0 +1,17 @@
+package bank;
+
+import java.io.Serializable;
+
+// A transaction together with the account it was posted to
+public class JournalEntry implements Serializable {
+    private String accountNumber;
+    private Transaction transaction;
+
+    public JournalEntry(String accountNumber, Transaction transaction) {
+        this.accountNumber = accountNumber;
+        this.transaction = transaction;
+    }
+
+    public String getAccountNumber() { return accountNumber; }
+    public Transaction getTransaction() { return transaction; }
+}
@@ -0,0 +1,23 @@
+package bank;
+
+// Outcome of a banking operation, returned instead of throwing for routine declines
+public enum OpResult {
+    SUCCESS("Success"),
+    INVALID_AMOUNT("Invalid amount"),
+    INSUFFICIENT_FUNDS("Insufficient funds for withdrawal"),
+    ACCOUNT_NOT_FOUND("Account not found");
+
+    private final String message;
+
+    OpResult(String message) {
+        this.message = message;
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
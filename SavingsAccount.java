@@ -1,15 +1,9 @@
 package bank;
 
 public class SavingsAccount extends Account {
-    private static final double INTEREST_RATE = 0.045;
+    public static final InterestPolicy DEFAULT_INTEREST_POLICY = new FlatInterestPolicy(0.045);
 
     public SavingsAccount(String accountNumber, Customer owner) {
-        super(accountNumber, owner);
-    }
-
-    @Override
-    public void calculateInterest() {
-        double interest = balance * (INTEREST_RATE / 12);
-        deposit(interest);
+        super(accountNumber, owner, DEFAULT_INTEREST_POLICY);
     }
 }
@@ -0,0 +1,68 @@
+package bank;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Balance-banded rates: the band a balance falls into sets the rate for the whole balance.
+// floors[i] is the lowest balance of band i; floors must start at 0 and be ascending.
+public final class TieredInterestPolicy implements InterestPolicy, Serializable {
+    static final String NAME = "Tiered";
+
+    private final double[] floors;
+    private final double[] annualRates;
+    private final double[] dailyRates;
+
+    public TieredInterestPolicy(double[] floors, double[] annualRates) {
+        if (floors.length == 0 || floors.length != annualRates.length) {
+            throw new IllegalArgumentException("Each band needs exactly one rate");
+        }
+        if (floors[0] != 0) {
+            throw new IllegalArgumentException("First band must start at 0");
+        }
+        for (int i = 0; i < floors.length; i++) {
+            if (i > 0 && floors[i] <= floors[i - 1]) {
+                throw new IllegalArgumentException("Band floors must be ascending");
+            }
+            if (annualRates[i] < 0) {
+                throw new IllegalArgumentException("Interest rate cannot be negative");
+            }
+        }
+        this.floors = floors.clone();
+        this.annualRates = annualRates.clone();
+        this.dailyRates = new double[annualRates.length];
+        for (int i = 0; i < annualRates.length; i++) {
+            dailyRates[i] = annualRates[i] / 365;
+        }
+    }
+
+    @Override
+    public double annualRate(double balance) {
+        return annualRates[band(balance)];
+    }
+
+    @Override
+    public double dailyInterest(double balance) {
+        return balance > 0 ? balance * dailyRates[band(balance)] : 0.0;
+    }
+
+    // Saved form, read back by InterestPolicy.parse
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder(NAME).append(' ');
+        for (int i = 0; i < floors.length; i++) {
+            if (i > 0) {
+                spec.append(',');
+            }
+            spec.append(floors[i]).append('=').append(annualRates[i]);
+        }
+        return spec.toString();
+    }
+
+    private int band(double balance) {
+        int index = Arrays.binarySearch(floors, balance);
+        if (index >= 0) {
+            return index;
+        }
+        return Math.max(0, -index - 2);
+    }
+}
@@ -2,12 +2,14 @@ package bank;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class Transaction implements Serializable {
     private String type;
     private double amount;
     private double balanceAfter;
     private LocalDateTime timestamp;
+    private long epochMillis;
 
     public Transaction(String type, double amount, double balanceAfter) {
         this(type, amount, balanceAfter, LocalDateTime.now());
@@ -18,10 +20,25 @@ public class Transaction implements Serializable {
         this.amount = amount;
         this.balanceAfter = balanceAfter;
         this.timestamp = timestamp;
+        this.epochMillis = toEpochMillis(timestamp);
+    }
+
+    // Timestamps are local wall-clock times; they are keyed as UTC so ordering is stable.
+    // Values outside the millisecond range (e.g. LocalDateTime.MIN/MAX as open bounds) are clamped.
+    static long toEpochMillis(LocalDateTime timestamp) {
+        long seconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / 1000) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / 1000) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1000 + timestamp.getNano() / 1_000_000;
     }
 
     public String getType() { return type; }
     public double getAmount() { return amount; }
     public double getBalanceAfter() { return balanceAfter; }
     public LocalDateTime getTimestamp() { return timestamp; }
+    public long getEpochMillis() { return epochMillis; }
 }
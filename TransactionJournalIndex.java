@@ -0,0 +1,47 @@
+package bank;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Time-partitioned index over the transaction journal of all accounts.
+// Entries are bucketed into fixed-width segments (one day each), so a
+// date-range query only reads the segments that overlap the range.
+class TransactionJournalIndex {
+    static final long SEGMENT_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final TreeMap<Long, List<JournalEntry>> segments = new TreeMap<>();
+
+    synchronized void add(String accountNumber, Transaction transaction) {
+        long key = segmentKey(transaction.getEpochMillis());
+        segments.computeIfAbsent(key, k -> new ArrayList<>())
+            .add(new JournalEntry(accountNumber, transaction));
+    }
+
+    // Entries with fromMillis <= time < toMillis, in time order
+    synchronized List<JournalEntry> range(long fromMillis, long toMillis) {
+        List<JournalEntry> result = new ArrayList<>();
+        if (fromMillis >= toMillis) {
+            return result;
+        }
+        NavigableMap<Long, List<JournalEntry>> overlapping =
+            segments.subMap(segmentKey(fromMillis), true, segmentKey(toMillis - 1), true);
+        for (List<JournalEntry> segment : overlapping.values()) {
+            for (JournalEntry entry : segment) {
+                long time = entry.getTransaction().getEpochMillis();
+                if (time >= fromMillis && time < toMillis) {
+                    result.add(entry);
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(e -> e.getTransaction().getEpochMillis()));
+        return result;
+    }
+
+    private static long segmentKey(long epochMillis) {
+        return Math.floorDiv(epochMillis, SEGMENT_MILLIS);
+    }
+}
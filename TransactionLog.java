@@ -0,0 +1,367 @@
+package bank;
+
+import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Append-only transaction journal split into rolled segment files.
+//
+// Each segment starts with a small header and holds compact binary records:
+// account numbers are written once per segment and then referenced by id,
+// timestamps are deltas from the previous record, and amounts that are whole
+// cents are stored as varints. A segment is sealed when it grows past the size
+// limit or a record falls on a new day; sealed segments can be gzip-compressed,
+// and all but the newest few are moved to the archive directory. Both the live
+// and archive directories are read back by readAll().
+class TransactionLog implements Closeable {
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 8L * 1024 * 1024;
+    static final int DEFAULT_LIVE_SEGMENTS = 4;
+    static final String ARCHIVE_DIR = "archive";
+
+    private static final int MAGIC = 0x4254584C; // "BTXL"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final String COMPRESSED_SUFFIX = ".log.gz";
+    private static final long DAY_MILLIS = TransactionJournalIndex.SEGMENT_MILLIS;
+
+    private static final int FLAG_NEW_ACCOUNT = 1;
+    private static final int FLAG_AMOUNT_CENTS = 1 << 1;
+    private static final int FLAG_BALANCE_CENTS = 1 << 2;
+    private static final int TYPE_SHIFT = 3;
+    private static final String[] TYPES = {"Deposit", "Withdrawal", "Interest"};
+    private static final int TYPE_OTHER = TYPES.length;
+
+    private final File directory;
+    private final File archiveDirectory;
+    private final long maxSegmentBytes;
+    private final boolean compressSealed;
+    private final int liveSegments;
+
+    private long nextSequence;
+    private File activeFile;
+    private DataOutputStream out;
+    private Map<String, Integer> accountIds;
+    private long lastMillis;
+    private long segmentDay;
+
+    TransactionLog(File directory) throws IOException {
+        this(directory, DEFAULT_MAX_SEGMENT_BYTES, true, DEFAULT_LIVE_SEGMENTS);
+    }
+
+    TransactionLog(File directory, long maxSegmentBytes, boolean compressSealed, int liveSegments)
+            throws IOException {
+        this.directory = directory;
+        this.archiveDirectory = new File(directory, ARCHIVE_DIR);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compressSealed = compressSealed;
+        this.liveSegments = liveSegments;
+        if (!archiveDirectory.isDirectory() && !archiveDirectory.mkdirs()) {
+            throw new IOException("Cannot create transaction log directory: " + archiveDirectory);
+        }
+
+        // Segments left open by a previous run are sealed; this run starts a fresh one
+        for (File segment : listSegments()) {
+            nextSequence = Math.max(nextSequence, sequenceOf(segment) + 1);
+            if (segment.getName().endsWith(SUFFIX) && segment.getParentFile().equals(directory)) {
+                seal(segment);
+            }
+        }
+        archiveOldSegments();
+    }
+
+    synchronized void append(List<JournalEntry> entries) throws IOException {
+        try {
+            for (JournalEntry entry : entries) {
+                Transaction transaction = entry.getTransaction();
+                long millis = transaction.getEpochMillis();
+                if (out == null || out.size() >= maxSegmentBytes || Math.floorDiv(millis, DAY_MILLIS) != segmentDay) {
+                    roll(millis);
+                }
+                writeRecord(entry.getAccountNumber(), transaction, millis);
+            }
+            if (out != null) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            abandonActive();
+            throw e;
+        }
+    }
+
+    // Reads every record from archived and live segments, oldest segment first.
+    // A segment that cannot be read is reported and skipped from the bad record on.
+    synchronized void readAll(BiConsumer<String, Transaction> consumer) throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+        for (File segment : listSegments()) {
+            try {
+                readSegment(segment, consumer);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeActive();
+    }
+
+    private void roll(long millis) throws IOException {
+        closeActive();
+        archiveOldSegments();
+
+        activeFile = new File(directory, String.format("%s%010d%s", PREFIX, nextSequence++, SUFFIX));
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(activeFile)));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        accountIds = new HashMap<>();
+        lastMillis = 0;
+        segmentDay = Math.floorDiv(millis, DAY_MILLIS);
+    }
+
+    private void closeActive() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        out = null;
+        seal(activeFile);
+        activeFile = null;
+    }
+
+    // Seals the active segment after a failed write, so later records start in a
+    // fresh segment instead of following a partial record
+    private void abandonActive() {
+        if (out == null) {
+            return;
+        }
+        File segment = activeFile;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // The stream is being dropped; whatever reached the file is what gets sealed
+        }
+        out = null;
+        activeFile = null;
+        try {
+            seal(segment);
+        } catch (IOException e) {
+            // Left unsealed; it is sealed the next time the log is opened
+            e.printStackTrace();
+        }
+    }
+
+    private void seal(File segment) throws IOException {
+        if (!compressSealed) {
+            return;
+        }
+        File compressed = new File(segment.getParentFile(),
+            segment.getName().substring(0, segment.getName().length() - SUFFIX.length()) + COMPRESSED_SUFFIX);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(segment));
+             OutputStream gzip = new GZIPOutputStream(new FileOutputStream(compressed), 64 * 1024)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                gzip.write(buffer, 0, read);
+            }
+        }
+        if (!segment.delete()) {
+            throw new IOException("Cannot remove sealed segment: " + segment);
+        }
+    }
+
+    // Keeps only the newest sealed segments in the live directory
+    private void archiveOldSegments() throws IOException {
+        List<File> sealed = new ArrayList<>();
+        for (File segment : listSegments(directory)) {
+            if (!segment.equals(activeFile)) {
+                sealed.add(segment);
+            }
+        }
+        for (int i = 0; i < sealed.size() - liveSegments; i++) {
+            File segment = sealed.get(i);
+            if (!segment.renameTo(new File(archiveDirectory, segment.getName()))) {
+                throw new IOException("Cannot archive segment: " + segment);
+            }
+        }
+    }
+
+    private List<File> listSegments() {
+        List<File> segments = listSegments(archiveDirectory);
+        segments.addAll(listSegments(directory));
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    private static List<File> listSegments(File dir) {
+        List<File> segments = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isFile() && name.startsWith(PREFIX)
+                        && (name.endsWith(SUFFIX) || name.endsWith(COMPRESSED_SUFFIX))) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        int end = name.indexOf('.', PREFIX.length());
+        return Long.parseLong(name.substring(PREFIX.length(), end));
+    }
+
+    private void writeRecord(String accountNumber, Transaction transaction, long millis) throws IOException {
+        Integer accountId = accountIds.get(accountNumber);
+        long amountCents = toCents(transaction.getAmount());
+        long balanceCents = toCents(transaction.getBalanceAfter());
+        int typeCode = typeCode(transaction.getType());
+
+        int flags = typeCode << TYPE_SHIFT;
+        if (accountId == null) {
+            flags |= FLAG_NEW_ACCOUNT;
+        }
+        if (amountCents != Long.MIN_VALUE) {
+            flags |= FLAG_AMOUNT_CENTS;
+        }
+        if (balanceCents != Long.MIN_VALUE) {
+            flags |= FLAG_BALANCE_CENTS;
+        }
+        out.writeByte(flags);
+
+        if (accountId == null) {
+            accountIds.put(accountNumber, accountIds.size());
+            out.writeUTF(accountNumber);
+        } else {
+            writeVarLong(out, accountId);
+        }
+        writeVarLong(out, zigZag(millis - lastMillis));
+        lastMillis = millis;
+        if (typeCode == TYPE_OTHER) {
+            out.writeUTF(transaction.getType());
+        }
+        if (amountCents != Long.MIN_VALUE) {
+            writeVarLong(out, zigZag(amountCents));
+        } else {
+            out.writeDouble(transaction.getAmount());
+        }
+        if (balanceCents != Long.MIN_VALUE) {
+            writeVarLong(out, zigZag(balanceCents));
+        } else {
+            out.writeDouble(transaction.getBalanceAfter());
+        }
+    }
+
+    private static void readSegment(File segment, BiConsumer<String, Transaction> consumer) throws IOException {
+        InputStream raw = new BufferedInputStream(new FileInputStream(segment));
+        if (segment.getName().endsWith(COMPRESSED_SUFFIX)) {
+            raw = new GZIPInputStream(raw, 64 * 1024);
+        }
+        try (DataInputStream in = new DataInputStream(raw)) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Not a transaction log segment: " + segment);
+            }
+            List<String> accountNumbers = new ArrayList<>();
+            long millis = 0;
+            while (true) {
+                int flags = in.read();
+                if (flags < 0) {
+                    break;
+                }
+                String accountNumber;
+                if ((flags & FLAG_NEW_ACCOUNT) != 0) {
+                    accountNumber = in.readUTF();
+                    accountNumbers.add(accountNumber);
+                } else {
+                    long accountId = readVarLong(in);
+                    if (accountId < 0 || accountId >= accountNumbers.size()) {
+                        throw new IOException("Corrupt account id " + accountId + " in " + segment);
+                    }
+                    accountNumber = accountNumbers.get((int) accountId);
+                }
+                millis += unZigZag(readVarLong(in));
+                int typeCode = flags >>> TYPE_SHIFT;
+                if (typeCode > TYPE_OTHER) {
+                    throw new IOException("Corrupt record flags " + flags + " in " + segment);
+                }
+                String type = typeCode == TYPE_OTHER ? in.readUTF() : TYPES[typeCode];
+                double amount = (flags & FLAG_AMOUNT_CENTS) != 0
+                    ? unZigZag(readVarLong(in)) / 100.0 : in.readDouble();
+                double balanceAfter = (flags & FLAG_BALANCE_CENTS) != 0
+                    ? unZigZag(readVarLong(in)) / 100.0 : in.readDouble();
+
+                LocalDateTime timestamp;
+                try {
+                    timestamp = LocalDateTime.ofEpochSecond(
+                        Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+                } catch (DateTimeException e) {
+                    throw new IOException("Corrupt timestamp in " + segment, e);
+                }
+                consumer.accept(accountNumber, new Transaction(type, amount, balanceAfter, timestamp));
+            }
+        } catch (EOFException e) {
+            // A record cut short by a crash; everything before it has been read
+        }
+    }
+
+    private static int typeCode(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        return TYPE_OTHER;
+    }
+
+    // Whole-cent value of the amount, or Long.MIN_VALUE if it is not exactly representable
+    private static long toCents(double value) {
+        if (Math.abs(value) > 1e15) {
+            return Long.MIN_VALUE;
+        }
+        long cents = Math.round(value * 100);
+        return cents / 100.0 == value ? cents : Long.MIN_VALUE;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in transaction log");
+    }
+}
@@ -0,0 +1,67 @@
+package bank;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Sorted epoch-millis index over an account's transaction list.
+// Records almost always arrive in time order, so add() is an append;
+// out-of-order records are inserted at their sorted position.
+class TransactionTimeIndex implements Serializable {
+    private long[] times = new long[16];
+    private int[] positions = new int[16];
+    private int size;
+
+    void add(long epochMillis, int position) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        int slot = size;
+        if (size > 0 && times[size - 1] > epochMillis) {
+            slot = firstIndexAfter(epochMillis);
+            System.arraycopy(times, slot, times, slot + 1, size - slot);
+            System.arraycopy(positions, slot, positions, slot + 1, size - slot);
+        }
+        times[slot] = epochMillis;
+        positions[slot] = position;
+        size++;
+    }
+
+    // Positions of the records with fromMillis <= time < toMillis, in time order
+    int[] range(long fromMillis, long toMillis) {
+        if (fromMillis >= toMillis) {
+            return new int[0];
+        }
+        int start = firstIndexAtOrAfter(fromMillis);
+        int end = firstIndexAtOrAfter(toMillis);
+        return Arrays.copyOfRange(positions, start, end);
+    }
+
+    private int firstIndexAtOrAfter(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexAfter(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}